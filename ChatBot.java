@@ -20,7 +20,7 @@ public class ChatBot {
         try {
             //initialise socket to connect to server
             serverSocket = new Socket(serverAddress, serverPort);
-            System.out.println("\nConnected to server:\n>Address: " +serverAddress +"\n>Port: "+serverPort);
+            ChatLogger.info("Connected to server", "address", serverAddress, "port", serverPort);
 
             //initialised input/output streams etc
             serverInputStream = new InputStreamReader(serverSocket.getInputStream());
@@ -29,11 +29,11 @@ public class ChatBot {
 
         } catch (SocketException socketException) {
             //error creating bot -> shutdown
-            System.out.println("\nUnable to connect to server:\n>Address: " +serverAddress +"\n>Port: "+serverPort);
+            ChatLogger.error("Unable to connect to server", "address", serverAddress, "port", serverPort);
             shutdownBot();
         } catch (IOException e) {
             //error creating bot -> shutdown
-            System.out.println("\nUnable to fully launch chatbot.");
+            ChatLogger.error("Unable to fully launch chatbot.", "cause", e);
             shutdownBot();
         }
     }
@@ -52,9 +52,9 @@ public class ChatBot {
             }
         } catch (SocketException socketException) {
             //server closed
-            System.out.println("Server socket closed (server shutdown).");
+            ChatLogger.info("Server socket closed (server shutdown).");
         } catch (IOException ioException) {
-            System.out.println(ioException);
+            ChatLogger.error("Unable to read from server", "cause", ioException);
         }finally{
             //bot no longer active -> shutdown
             shutdownBot();
@@ -65,7 +65,7 @@ public class ChatBot {
     public void shutdownBot(){
         if(botIsActive) {
             try {
-                System.out.println("\nShutting down bot...");
+                ChatLogger.info("Shutting down bot...");
 
                 //if component has been initialised, it gets closed, if not - ignore
                 if (serverInpReader != null) {
@@ -82,9 +82,9 @@ public class ChatBot {
                 }
 
                 botIsActive = false;//no longer active - shutdown
-                System.out.println("Clean shutdown complete.");
+                ChatLogger.info("Clean shutdown complete.");
             } catch (Exception causeOfShutdownFailure) {
-                System.out.println("Cannot close bot cleanly. Forcing shutdown.\n" + causeOfShutdownFailure);
+                ChatLogger.error("Cannot close bot cleanly. Forcing shutdown.", "cause", causeOfShutdownFailure);
                 System.exit(0);
             }
         }
@@ -117,9 +117,12 @@ public class ChatBot {
 
         /*  Main method of SendResponseThread instance  */
         public void run() {
-            //print to console of person running bot to inform progress
-            System.out.println("Responding to: " + clientMessage);
+            //log to console of person running bot to inform progress (formatted off this thread)
+            ChatLogger.info("Responding to", "message", clientMessage);
+            ChatEvents.BotResponseEvent responseEvent = new ChatEvents.BotResponseEvent();
+            responseEvent.begin();
             String response="[BOT]: ";
+            boolean recognised = true;
 
             //comparing message with known prompts to return an appropriate message
             if(clientMessage.contains("hi") || clientMessage.contains("hello")){
@@ -128,8 +131,16 @@ public class ChatBot {
                 response = response + getFact();
             }else{
                 response = response + "That is not a valid bot message. See README.txt for details";
+                recognised = false;
             }
             serverOutWriter.println(response);//sends response back to server
+
+            responseEvent.end();
+            if (responseEvent.shouldCommit()) {
+                responseEvent.prompt = clientMessage;
+                responseEvent.recognised = recognised;
+                responseEvent.commit();
+            }
         }
     }
 
@@ -148,12 +159,15 @@ public class ChatBot {
                 try {
                     portNo = parseInt(args[count + 1]);
                 }catch(NumberFormatException numberFormatException){
-                    System.out.println("Usage: not a valid number input for port.");
+                    ChatLogger.warn("Usage: not a valid number input for port.");
                 }
 
             } else if (args[count].equalsIgnoreCase("-cba")) {
                 //passes following argument as the address
                 ipAddress = args[count + 1];
+            } else if (args[count].equalsIgnoreCase("-cbl") && count + 1 < args.length) {
+                //also writes log events to the given file (rotated when it grows too large)
+                ChatLogger.logToFile(args[count + 1]);
             }
             count++;
         }
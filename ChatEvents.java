@@ -0,0 +1,67 @@
+import jdk.jfr.*;
+
+/* JDK Flight Recorder events for the server and bot.
+   Disabled events cost almost nothing, enable them with e.g.
+   'java -XX:StartFlightRecording=filename=chat.jfr ChatServer' */
+final class ChatEvents {
+
+    private ChatEvents() {
+    }
+
+    /* Hand-off of a newly accepted connection to its ServerThread */
+    @Name("chat.Accept")
+    @Label("Connection Accepted")
+    @Category({"Chat", "Server"})
+    @Description("Time from accept() returning to the worker thread being started and registered")
+    static final class AcceptEvent extends Event {
+        @Label("Local Port")
+        int localPort;
+
+        @Label("Remote Port")
+        int remotePort;
+
+        @Label("Active Clients")
+        int activeClients;
+    }
+
+    /* One incoming message being sent to every connected client */
+    @Name("chat.Broadcast")
+    @Label("Message Broadcast")
+    @Category({"Chat", "Server"})
+    @Description("Time taken to send a single message to all connected clients")
+    static final class BroadcastEvent extends Event {
+        @Label("Sender Port")
+        int senderPort;
+
+        @Label("Recipients")
+        int recipients;
+
+        @Label("Message Length")
+        @DataAmount(DataAmount.BYTES)
+        int messageLength;
+    }
+
+    /* A ServerThread closing its client's connection */
+    @Name("chat.Disconnect")
+    @Label("Client Disconnected")
+    @Category({"Chat", "Server"})
+    static final class DisconnectEvent extends Event {
+        @Label("Remote Port")
+        int remotePort;
+
+        @Label("Clean")
+        boolean clean;
+    }
+
+    /* The bot building and sending a reply to a 'BOT.' prompt */
+    @Name("chat.BotResponse")
+    @Label("Bot Response")
+    @Category({"Chat", "Bot"})
+    static final class BotResponseEvent extends Event {
+        @Label("Prompt")
+        String prompt;
+
+        @Label("Recognised")
+        boolean recognised;
+    }
+}
@@ -0,0 +1,387 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/* Class used to log events from the server and bot without blocking the calling thread */
+public final class ChatLogger {
+
+    /* Severity of a log event - events below the current level are discarded */
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final int BUFFER_CAPACITY = 8192;//must be a power of two
+    private static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024;
+    private static final int DEFAULT_MAX_FILES = 5;
+
+    private static final LogRingBuffer buffer = new LogRingBuffer(BUFFER_CAPACITY);
+    private static final LogWriterThread writerThread = new LogWriterThread(buffer);
+    private static volatile Level minimumLevel = Level.INFO;
+
+    static {
+        //writer is a daemon so it never holds the JVM open, the hook drains whatever is left on exit
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(writerThread::shutdown, "ChatLogger-shutdown"));
+    }
+
+    private ChatLogger() {
+    }
+
+    /* Sets the lowest level that will be recorded */
+    public static void setLevel(Level level) {
+        minimumLevel = level;
+    }
+
+    /* Returns true if events of the given level are currently recorded */
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(minimumLevel) >= 0;
+    }
+
+    /* Writes events to the given file as well as the console, rotating once it exceeds maxBytes */
+    public static void logToFile(String path, long maxBytes, int maxFiles) {
+        writerThread.requestFile(new LogFileTarget(Paths.get(path), maxBytes, maxFiles));
+    }
+
+    /* Writes events to the given file as well as the console using the default rotation settings */
+    public static void logToFile(String path) {
+        logToFile(path, DEFAULT_MAX_BYTES, DEFAULT_MAX_FILES);
+    }
+
+    public static void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, fields);
+    }
+
+    public static void info(String message, Object... fields) {
+        log(Level.INFO, message, fields);
+    }
+
+    public static void warn(String message, Object... fields) {
+        log(Level.WARN, message, fields);
+    }
+
+    public static void error(String message, Object... fields) {
+        log(Level.ERROR, message, fields);
+    }
+
+    /* Queues an event for the writer thread. Fields are passed as alternating key/value pairs. */
+    public static void log(Level level, String message, Object... fields) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        //only the timestamp and thread are captured here, all formatting happens on the writer thread
+        LogEvent event = new LogEvent(System.currentTimeMillis(), level, Thread.currentThread().getName(), message, fields);
+        if (!buffer.offer(event)) {
+            //buffer full - drop rather than stall the caller, the writer reports how many were lost
+            buffer.droppedEvents.incrementAndGet();
+        }
+        writerThread.wake();
+    }
+}
+
+/* Single log event, immutable once published to the ring buffer */
+final class LogEvent {
+    final long timestampMillis;
+    final ChatLogger.Level level;
+    final String threadName;
+    final String message;
+    final Object[] fields;
+
+    LogEvent(long timestampMillis, ChatLogger.Level level, String threadName, String message, Object[] fields) {
+        this.timestampMillis = timestampMillis;
+        this.level = level;
+        this.threadName = threadName;
+        this.message = message;
+        this.fields = fields;
+    }
+
+    /* Human readable form used for the console: message followed by key=value fields */
+    String toConsoleLine() {
+        StringBuilder line = new StringBuilder(message);
+        appendFields(line);
+        return line.toString();
+    }
+
+    /* Structured form used for the log file */
+    String toFileLine(DateTimeFormatter formatter) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(formatter.format(Instant.ofEpochMilli(timestampMillis)))
+                .append(' ').append(level)
+                .append(" [").append(threadName).append("] msg=");
+        appendValue(line, message);
+        appendFields(line);
+        return line.toString();
+    }
+
+    private void appendFields(StringBuilder line) {
+        if (fields == null) {
+            return;
+        }
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(line, String.valueOf(fields[i + 1]));
+        }
+    }
+
+    private static void appendValue(StringBuilder line, String value) {
+        //values are quoted only when needed so the common case stays easy to grep
+        boolean needsQuotes = value.isEmpty();
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ' ' || c == '"' || c == '=' || c == '\n' || c == '\r' || c == '\t';
+        }
+        if (!needsQuotes) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default: line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
+
+/* Bounded lock-free queue: many producer threads, one consumer (the writer thread).
+   Each slot carries a sequence number so producers claim slots with a single CAS. */
+final class LogRingBuffer {
+    private final int mask;
+    private final AtomicReferenceArray<LogEvent> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();//next position producers will claim
+    private long head;//next position to read, only touched by the consumer
+    final AtomicLong droppedEvents = new AtomicLong();
+
+    LogRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /* Returns false instead of waiting if the buffer is full */
+    boolean offer(LogEvent event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                //slot is free for this position - claim it, then publish by bumping its sequence
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                //consumer has not freed this slot yet -> full
+                return false;
+            }
+            //otherwise another producer claimed it first, retry with the new tail
+        }
+    }
+
+    /* Returns the next published event, or null if none are ready */
+    LogEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        LogEvent event = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);//frees the slot for the next lap
+        head++;
+        return event;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
+
+/* Log file settings requested by ChatLogger.logToFile() */
+final class LogFileTarget {
+    final Path path;
+    final long maxBytes;
+    final int maxFiles;
+
+    LogFileTarget(Path path, long maxBytes, int maxFiles) {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+}
+
+/* Background thread that drains the ring buffer to the console and (optionally) a rotating file */
+final class LogWriterThread extends Thread {
+    private final LogRingBuffer buffer;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ISO_INSTANT;
+    private final PrintStream console = System.out;
+    private volatile LogFileTarget pendingTarget;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    //file state, only touched by whichever thread holds the lock on this object
+    private LogFileTarget target;
+    private Writer fileWriter;
+    private long fileBytes;
+
+    LogWriterThread(LogRingBuffer buffer) {
+        super("ChatLogger-writer");
+        setDaemon(true);
+        this.buffer = buffer;
+    }
+
+    void requestFile(LogFileTarget newTarget) {
+        pendingTarget = newTarget;
+        wake();
+    }
+
+    void wake() {
+        //only unpark when actually idle so busy producers don't pay for it on every event
+        if (parked) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    public void run() {
+        while (running) {
+            if (!drainAndFlush()) {
+                //no polling while idle - log() and requestFile() unpark us, and re-checking after
+                //setting 'parked' means an event published in between is never missed
+                parked = true;
+                if (buffer.isEmpty() && pendingTarget == null) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    /* Writes out everything currently queued. Returns true if anything was written. */
+    synchronized boolean drainAndFlush() {
+        LogFileTarget requested = pendingTarget;
+        if (requested != null) {
+            pendingTarget = null;
+            openFile(requested);
+        }
+
+        boolean wroteAny = false;
+        LogEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+            wroteAny = true;
+        }
+
+        long dropped = buffer.droppedEvents.getAndSet(0);
+        if (dropped > 0) {
+            write(new LogEvent(System.currentTimeMillis(), ChatLogger.Level.WARN, getName(),
+                    "Log buffer full, events dropped", new Object[]{"count", dropped}));
+            wroteAny = true;
+        }
+
+        if (wroteAny) {
+            console.flush();
+            if (fileWriter != null) {
+                try {
+                    fileWriter.flush();
+                } catch (IOException ioException) {
+                    closeFile("Unable to flush log file", ioException);
+                }
+            }
+        }
+        return wroteAny;
+    }
+
+    /* Drains the remaining events and closes the file - called from the shutdown hook */
+    synchronized void shutdown() {
+        running = false;
+        drainAndFlush();
+        closeFile(null, null);
+    }
+
+    private void write(LogEvent event) {
+        console.println(event.toConsoleLine());
+        if (fileWriter == null) {
+            return;
+        }
+        String line = event.toFileLine(formatter) + System.lineSeparator();
+        try {
+            long lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+            if (fileBytes > 0 && fileBytes + lineBytes > target.maxBytes) {
+                rotate();
+            }
+            fileWriter.write(line);
+            fileBytes += lineBytes;
+        } catch (IOException ioException) {
+            closeFile("Unable to write to log file", ioException);
+        }
+    }
+
+    private void openFile(LogFileTarget newTarget) {
+        closeFile(null, null);
+        try {
+            Path parent = newTarget.path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            fileBytes = Files.exists(newTarget.path) ? Files.size(newTarget.path) : 0;
+            fileWriter = Files.newBufferedWriter(newTarget.path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            target = newTarget;
+        } catch (IOException ioException) {
+            console.println("Unable to open log file: " + newTarget.path + " (" + ioException + ")");
+        }
+    }
+
+    /* Shifts chat.log -> chat.log.1 -> chat.log.2 ... discarding the oldest, then starts a new file */
+    private void rotate() throws IOException {
+        fileWriter.close();
+        fileWriter = null;
+        Path path = target.path;
+        for (int i = target.maxFiles - 1; i >= 1; i--) {
+            Path older = Paths.get(path + "." + i);
+            Path source = i == 1 ? path : Paths.get(path + "." + (i - 1));
+            if (Files.exists(source)) {
+                Files.move(source, older, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (target.maxFiles == 1) {
+            Files.deleteIfExists(path);
+        }
+        fileWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        fileBytes = 0;
+    }
+
+    private void closeFile(String reason, IOException cause) {
+        if (reason != null) {
+            //console only - the file is the thing that failed
+            console.println(reason + ": " + cause);
+        }
+        if (fileWriter != null) {
+            try {
+                fileWriter.close();
+            } catch (IOException ignored) {
+                //nothing more can be done with a broken log file
+            }
+            fileWriter = null;
+        }
+        target = null;
+    }
+}
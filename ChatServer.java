@@ -1,8 +1,10 @@
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import static java.lang.Integer.parseInt;
 
 /* Class used to host a chat server */
@@ -20,7 +22,7 @@ public class ChatServer extends Thread {
 
         } catch (IOException e) {
             //If error, server cannot be created -> call close() method
-            System.out.println("Cannot create server.\n");
+            ChatLogger.error("Cannot create server.", "port", port, "cause", e);
             serverShutdown(socketThreadCHM, serverSocket);
         }
     }
@@ -41,12 +43,11 @@ public class ChatServer extends Thread {
                 serverSocket.close();
             }
 
-            System.out.println("\nClean shutdown.");
+            ChatLogger.info("Clean shutdown.");
 
         } catch (IOException e) {
-            //if unable to close cleanly, forces shutdown
-            System.out.println(e);
-            System.out.println("\nForcing shutdown...");
+            //if unable to close cleanly, forces shutdown (logger shutdown hook still flushes pending events)
+            ChatLogger.error("Forcing shutdown...", "cause", e);
             System.exit(0);
         }
 
@@ -59,18 +60,22 @@ public class ChatServer extends Thread {
         //used to find args from command line
         int count = 0;
         int portNo = 14001;
+        boolean portSet = false;
 
         while (count < args.length) {
-            //while there are remaing arguments, loops through to check for -csp to bind server port
-            if (args[count].equalsIgnoreCase("-csp")) {
+            //while there are remaing arguments, loops through to check for -csp (server port) and -csl (log file)
+            if (args[count].equalsIgnoreCase("-csp") && !portSet) {
                 //if command entered, attempts to bind to port specified
                 try {
                     portNo = parseInt(args[count + 1]);
                 }catch(NumberFormatException numberFormatException){
-                    System.out.println("Usage: not a valid number input for port.");
+                    ChatLogger.warn("Usage: not a valid number input for port.");
                 }
 
-                break;//takes first port input if they input multiple
+                portSet = true;//takes first port input if they input multiple
+            } else if (args[count].equalsIgnoreCase("-csl") && count + 1 < args.length) {
+                //also writes log events to the given file (rotated when it grows too large)
+                ChatLogger.logToFile(args[count + 1]);
             }
             count++;
         }//getting args
@@ -79,11 +84,11 @@ public class ChatServer extends Thread {
         //initialised within try-catch, defaults server to port 14001 + address localhost if error
         try {
             server = new ChatServer(portNo);//change to pass through port number
-            System.out.println("Server started via port: "+portNo);
+            ChatLogger.info("Server started", "port", portNo);
         } catch (Exception e) {
-            System.out.println("\nError creating server on port:"+portNo);
+            ChatLogger.error("Error creating server", "port", portNo, "cause", e);
             server = new ChatServer(14001);//change to pass through port number
-            System.out.println("\nServer started via default port: 14001");
+            ChatLogger.info("Server started via default port", "port", 14001);
         }
 
         server.start();
@@ -96,22 +101,38 @@ public class ChatServer extends Thread {
             while (exitThread.exitThreadActive) {
                 //loops through accepting connection while EXIT command not entered
                 Socket clientSocket = server.serverSocket.accept();
-                System.out.println("Connection accepted on: " + server.serverSocket.getLocalPort() + ":" + clientSocket.getPort());
+                ChatEvents.AcceptEvent acceptEvent = new ChatEvents.AcceptEvent();
+                acceptEvent.begin();
+                ChatLogger.info("Connection accepted", "localPort", server.serverSocket.getLocalPort(), "remotePort", clientSocket.getPort());
 
-                //starting worker thread to deal with the connection. Connection details added to CHM.
+                //starting worker thread to deal with the connection. Connection details added to CHM first
+                //so a client that disconnects straight away is removed again by its thread's terminate()
                 ServerThread serverThread = new ServerThread(clientSocket, server.socketThreadCHM);
-                serverThread.start();
                 server.socketThreadCHM.put(clientSocket, serverThread);
+                serverThread.start();
+
+                acceptEvent.end();
+                if (acceptEvent.shouldCommit()) {
+                    acceptEvent.localPort = server.serverSocket.getLocalPort();
+                    acceptEvent.remotePort = clientSocket.getPort();
+                    acceptEvent.activeClients = server.socketThreadCHM.size();
+                    acceptEvent.commit();
+                }
 
             }
         }  catch (IOException e) {
-            System.out.println("Cannot accept client connection: "+e);
             /* SocketException caused by exit thread when user hits 'EXIT'
             this breaks out of .accept() to enable server shutdown. */
+            if (!exitThread.exitThreadActive) {
+                ChatLogger.info("Stopped accepting client connections", "cause", e);
+            } else {
+                //any other failure is a real problem (i.e. out of file descriptors)
+                ChatLogger.error("Cannot accept client connection", "cause", e);
+            }
 
         } finally {
             //If not - exitThread.isActive returns false after next connection - breaks .accept()
-            System.out.println("\nClosing down server...");
+            ChatLogger.info("Closing down server...");
             serverShutdown(server.socketThreadCHM, server.serverSocket);//closes server
         }
     }
@@ -141,7 +162,7 @@ class ExitThread extends Thread{
                     break;
                 }
             } catch (IOException e) {
-                System.out.println(e);
+                ChatLogger.error("Unable to read server host input", "cause", e);
             }
         }
         //after user enters 'exit', calls shutdown() method to cleanly close thread
@@ -150,12 +171,14 @@ class ExitThread extends Thread{
 
     public void shutdown(){
         //closes thread cleanly - closes readers etc
+        //marked inactive before the server socket is closed so main() sees the accept() failure as expected
+        exitThreadActive = false;
         try {
             serverHostInputStream.close();
             serverHostInpReader.close();
             servSocketToClose.close();
         }catch (IOException ioException) {
-            System.out.println("Failure to close ExitThread instance cleanly.");
+            ChatLogger.warn("Failure to close ExitThread instance cleanly.", "cause", ioException);
         }finally {
             //no matter what, thread no longer active, therefore false
             exitThreadActive = false;
@@ -171,7 +194,7 @@ class ServerThread extends Thread {
     ConcurrentHashMap<Socket, ServerThread> socketThreadConcHashMap;
     BufferedReader clientReader;
     InputStreamReader clientCharStream;
-    Boolean terminatedAlready = false;//prevents termination process occurring twice when server shutdown.
+    final AtomicBoolean terminatedAlready = new AtomicBoolean(false);//prevents termination process occurring twice when server shutdown.
 
     ServerThread(Socket socketIn, ConcurrentHashMap<Socket, ServerThread> socketThreadMap) {
         //constructor for ServerThread - initialised CHM (track all clients) and socket for client dealing with
@@ -184,17 +207,35 @@ class ServerThread extends Thread {
 
         int thisClientPort = clientSocket.getPort();
 
-        if(!terminatedAlready) {
+        //terminate() can be called from this thread, other ServerThreads and the shutdown, so only the first caller proceeds
+        if(terminatedAlready.compareAndSet(false, true)) {
+            ChatEvents.DisconnectEvent disconnectEvent = new ChatEvents.DisconnectEvent();
+            disconnectEvent.begin();
+            boolean closedCleanly = true;
             try {
                 //if not closed already, closes socket and readers while removing client from CHM
                 socketThreadConcHashMap.remove(clientSocket);
                 clientSocket.close();
-                clientReader.close();
-                clientCharStream.close();
+                //readers are null if the server shuts down before this thread has started
+                if (clientReader != null) {
+                    clientReader.close();
+                }
+                if (clientCharStream != null) {
+                    clientCharStream.close();
+                }
 
             } catch (IOException ioException) {
-                System.out.println("Unable to terminate thread cleanly on port: " + thisClientPort);
+                closedCleanly = false;
+                ChatLogger.warn("Unable to terminate thread cleanly", "remotePort", thisClientPort, "cause", ioException);
+            }
+
+            disconnectEvent.end();
+            if (disconnectEvent.shouldCommit()) {
+                disconnectEvent.remotePort = thisClientPort;
+                disconnectEvent.clean = closedCleanly;
+                disconnectEvent.commit();
             }
+            ChatLogger.info("Client disconnected", "remotePort", thisClientPort);
         }
 
     }
@@ -210,6 +251,9 @@ class ServerThread extends Thread {
             while ((clientInput = clientReader.readLine())!=null) {
 
                 //waits until message received from it's client
+                ChatEvents.BroadcastEvent broadcastEvent = new ChatEvents.BroadcastEvent();
+                broadcastEvent.begin();
+                int recipients = 0;
 
                 for (Map.Entry<Socket, ServerThread> mapEntry : socketThreadConcHashMap.entrySet()) {
 
@@ -217,15 +261,27 @@ class ServerThread extends Thread {
                         //loops through active clients and sends the message to all
                         PrintWriter clientOut = new PrintWriter(mapEntry.getKey().getOutputStream(), true);
                         clientOut.println(clientInput);
+                        recipients++;
                     }else{
                         //calls .terminate() method of other client's thread if no longer active. Removes from CHM.
                         mapEntry.getValue().terminate();
                         socketThreadConcHashMap.remove(mapEntry.getKey());
                     }
                 }
+
+                broadcastEvent.end();
+                if (broadcastEvent.shouldCommit()) {
+                    broadcastEvent.senderPort = clientSocket.getPort();
+                    broadcastEvent.recipients = recipients;
+                    //encoded size as sent by the PrintWriter above, only computed while the event is enabled
+                    broadcastEvent.messageLength = clientInput.getBytes(Charset.defaultCharset()).length;
+                    broadcastEvent.commit();
+                }
             }
         }  catch (IOException e) {
-            //error thrown when the client socket is closed, calls terminate method to close this thread
+            //error thrown when the client socket is closed - handled by terminate() below
+        } finally {
+            //reached on EOF (client closed its connection normally) as well as on error
             terminate();
         }
     }